@@ -0,0 +1,207 @@
+package uj.wmii.pwj.exec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads single lines from the {@code data/} corpus with {@link AsynchronousFileChannel}.
+ * Channels are opened on a small set of {@link MyExecService} workers, which run the completion
+ * handlers. The number of outstanding reads is bounded by a semaphore.
+ * <p>
+ * On Linux the JDK has no truly asynchronous file I/O: with a custom executor every read is a
+ * blocking {@code pread} executed on a worker thread. At most {@code workers} reads are therefore
+ * in progress at once, and {@code maxInFlight} only bounds how many are queued behind them.
+ * Each request also reads the whole file from offset 0 and scans it for the line, since line
+ * offsets are not known up front (see {@link PackedCorpus} for single-line positioned reads).
+ */
+public class AsyncFileWalker implements AutoCloseable {
+
+    static final int SIZE = FileThreadWalker.SIZE;
+    static final int REQUESTS = 100_000;
+    static final int WORKERS = 4;
+    static final int MAX_IN_FLIGHT = 256;
+
+    private final MyExecService[] workers;
+    private final Semaphore inFlight;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    public AsyncFileWalker(int workers, int maxInFlight) {
+        if (workers <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("workers and maxInFlight must be positive");
+        }
+        this.workers = new MyExecService[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = MyExecService.newInstance();
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Starts an asynchronous read of line {@code lineIdx} of {@code path}. Blocks only while
+     * the in-flight limit is reached.
+     */
+    public CompletableFuture<String> readLine(Path path, int lineIdx) throws InterruptedException {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        inFlight.acquire();
+        AsynchronousFileChannel channel = null;
+        try {
+            MyExecService worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+            channel = AsynchronousFileChannel.open(path, Set.of(StandardOpenOption.READ), worker);
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            channel.read(buffer, 0, buffer, new LineHandler(channel, lineIdx, result));
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            inFlight.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        for (MyExecService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    private final class LineHandler implements CompletionHandler<Integer, ByteBuffer> {
+
+        private final AsynchronousFileChannel channel;
+        private final int lineIdx;
+        private final CompletableFuture<String> result;
+
+        LineHandler(AsynchronousFileChannel channel, int lineIdx, CompletableFuture<String> result) {
+            this.channel = channel;
+            this.lineIdx = lineIdx;
+            this.result = result;
+        }
+
+        @Override
+        public void completed(Integer read, ByteBuffer buffer) {
+            if (read >= 0 && buffer.hasRemaining()) {
+                try {
+                    channel.read(buffer, buffer.position(), buffer, this);
+                } catch (RuntimeException e) {
+                    failed(e, buffer);
+                }
+                return;
+            }
+            try {
+                buffer.flip();
+                result.complete(lineAt(buffer, lineIdx));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                finish();
+            }
+        }
+
+        @Override
+        public void failed(Throwable exc, ByteBuffer buffer) {
+            result.completeExceptionally(exc);
+            finish();
+        }
+
+        private void finish() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    static String lineAt(ByteBuffer buffer, int lineIdx) {
+        int start = buffer.position();
+        int line = 0;
+        for (int i = start; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                if (line == lineIdx) {
+                    return decode(buffer, start, i);
+                }
+                line++;
+                start = i + 1;
+            }
+        }
+        if (line == lineIdx && start < buffer.limit()) {
+            return decode(buffer, start, buffer.limit());
+        }
+        throw new IndexOutOfBoundsException("Index " + lineIdx + " out of bounds for length " + line);
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the blocking {@code Files.readAllLines} path of {@link FileThreadWalker} with
+     * the asynchronous one. Optional arguments: requests, workers, max in-flight reads.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : REQUESTS;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : WORKERS;
+        int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : MAX_IN_FLIGHT;
+
+        long t0 = System.currentTimeMillis();
+        Random r = new Random(42);
+        CountDownLatch latch = new CountDownLatch(requests);
+        AsyncLogSink log = new AsyncLogSink(System.out, FileThreadWalker.LOG_CAPACITY);
+        for (int i = 0; i < requests; i++) {
+            Path p = Path.of("data/" + r.nextInt(SIZE) + "/" + r.nextInt(SIZE) + ".txt");
+            Thread.ofPlatform().name("T-" + i).start(new MyRunnable(p, r.nextInt(SIZE), latch, log));
+        }
+        latch.await();
+        log.close();
+        long t1 = System.currentTimeMillis();
+        report("BLOCKING", requests, t1 - t0);
+
+        r = new Random(42);
+        CountDownLatch asyncLatch = new CountDownLatch(requests);
+        AtomicInteger failures = new AtomicInteger();
+        try (AsyncFileWalker walker = new AsyncFileWalker(workers, maxInFlight)) {
+            for (int i = 0; i < requests; i++) {
+                Path p = Path.of("data/" + r.nextInt(SIZE) + "/" + r.nextInt(SIZE) + ".txt");
+                walker.readLine(p, r.nextInt(SIZE)).whenComplete((line, e) -> {
+                    if (e != null) failures.incrementAndGet();
+                    asyncLatch.countDown();
+                });
+            }
+            asyncLatch.await(10, TimeUnit.MINUTES);
+        }
+        long t2 = System.currentTimeMillis();
+        report("ASYNC (" + workers + " workers, " + maxInFlight + " in flight)", requests, t2 - t1);
+        if (failures.get() > 0) System.out.println("FAILED: " + failures.get());
+    }
+
+    private static void report(String mode, int requests, long millis) {
+        long perSecond = millis == 0 ? requests : requests * 1000L / millis;
+        System.out.println(mode + ": " + millis + " ms, " + perSecond + " reads/s");
+    }
+}
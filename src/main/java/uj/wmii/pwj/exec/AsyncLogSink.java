@@ -0,0 +1,116 @@
+package uj.wmii.pwj.exec;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking log output. Producers claim a slot in a bounded ring buffer with a single CAS and
+ * never wait: when the buffer is full the message is dropped and counted. A daemon thread drains
+ * the buffer and writes messages to the target stream in batches.
+ */
+public class AsyncLogSink implements AutoCloseable {
+
+    private static final int MAX_BATCH = 1024;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final PrintStream out;
+    private final AtomicReferenceArray<String> ring;
+    private final int mask;
+    /** Next slot to claim; the sign bit is set once the sink is closed. */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+    /**
+     * @param capacity ring buffer size, rounded up to a power of two
+     */
+    public AsyncLogSink(PrintStream out, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.out = out;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = Thread.ofPlatform().name("LogSink").daemon().start(this::drainLoop);
+    }
+
+    /**
+     * Queues {@code message} for output. Returns {@code false} if it was dropped because the
+     * buffer is full or the sink is closed.
+     */
+    public boolean log(String message) {
+        long t;
+        do {
+            t = tail.get();
+            if (t < 0 || t - head > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        ring.lazySet((int) (t & mask), message);
+        return true;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder();
+        while (true) {
+            long t = tail.get();
+            int n = 0;
+            long h = head;
+            String message;
+            while (n < MAX_BATCH && (message = ring.get((int) (h & mask))) != null) {
+                ring.lazySet((int) (h & mask), null);
+                batch.append(message).append('\n');
+                h++;
+                n++;
+            }
+            head = h;
+            if (n > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+            } else if (t < 0 && h == (t & ~CLOSED)) {
+                // closed, and every slot claimed before closing has been written
+                return;
+            } else if (t < 0 || h != t) {
+                // a producer has claimed slot h but not published it yet
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting messages and waits until every message accepted so far has been written.
+     */
+    @Override
+    public void close() {
+        long t;
+        do {
+            t = tail.get();
+        } while (t >= 0 && !tail.compareAndSet(t, t | CLOSED));
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package uj.wmii.pwj.exec;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregate over the lines of the corpus, evaluated by {@link CorpusQueryEngine}. Each directory
+ * is folded into its own partial aggregate, partials are then merged in directory order.
+ *
+ * @param <A> type of the (mutable) partial aggregate
+ */
+public interface CorpusQuery<A> {
+
+    /**
+     * Called once at the start of every run, before any partial is created. Queries that keep
+     * state shared across partials reset it here, so a query object can be run repeatedly
+     * (though not concurrently).
+     */
+    default void begin() {
+    }
+
+    A newPartial();
+
+    /**
+     * Called before the lines of each file are streamed.
+     */
+    default void startFile(A partial, String dir, String file) {
+    }
+
+    /**
+     * Folds one line into {@code partial}. Returning {@code false} stops the whole query, on
+     * every worker, as soon as possible.
+     */
+    boolean accept(A partial, String dir, String file, String line);
+
+    A merge(A left, A right);
+
+    final class Counter {
+        long value;
+
+        public long value() {
+            return value;
+        }
+    }
+
+    final class DirStats {
+        long files;
+        long lines;
+        long chars;
+
+        public long files() {
+            return files;
+        }
+
+        public long lines() {
+            return lines;
+        }
+
+        public long chars() {
+            return chars;
+        }
+
+        @Override
+        public String toString() {
+            return "files=" + files + ", lines=" + lines + ", chars=" + chars;
+        }
+    }
+
+    /**
+     * Number of lines containing a match of {@code pattern}.
+     */
+    static CorpusQuery<Counter> count(Pattern pattern) {
+        return new CorpusQuery<>() {
+            @Override
+            public Counter newPartial() {
+                return new Counter();
+            }
+
+            @Override
+            public boolean accept(Counter partial, String dir, String file, String line) {
+                if (pattern.matcher(line).find()) partial.value++;
+                return true;
+            }
+
+            @Override
+            public Counter merge(Counter left, Counter right) {
+                left.value += right.value;
+                return left;
+            }
+        };
+    }
+
+    /**
+     * File, line and character counts per directory, keyed by directory name in directory order.
+     */
+    static CorpusQuery<Map<String, DirStats>> dirStats() {
+        return new CorpusQuery<>() {
+            @Override
+            public Map<String, DirStats> newPartial() {
+                return new LinkedHashMap<>();
+            }
+
+            @Override
+            public void startFile(Map<String, DirStats> partial, String dir, String file) {
+                partial.computeIfAbsent(dir, d -> new DirStats()).files++;
+            }
+
+            @Override
+            public boolean accept(Map<String, DirStats> partial, String dir, String file, String line) {
+                DirStats stats = partial.get(dir);
+                stats.lines++;
+                stats.chars += line.length();
+                return true;
+            }
+
+            @Override
+            public Map<String, DirStats> merge(Map<String, DirStats> left, Map<String, DirStats> right) {
+                left.putAll(right);
+                return left;
+            }
+        };
+    }
+
+    /**
+     * At most {@code limit} lines containing a match of {@code pattern}, formatted as
+     * {@code dir/file: line}. Scanning stops once the limit is reached, so which lines are
+     * returned depends on scheduling.
+     */
+    static CorpusQuery<List<String>> find(Pattern pattern, int limit) {
+        AtomicInteger found = new AtomicInteger();
+        return new CorpusQuery<>() {
+            @Override
+            public void begin() {
+                found.set(0);
+            }
+
+            @Override
+            public List<String> newPartial() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public boolean accept(List<String> partial, String dir, String file, String line) {
+                if (!pattern.matcher(line).find()) return true;
+                int n = found.incrementAndGet();
+                if (n <= limit) partial.add(dir + "/" + file + ": " + line);
+                return n < limit;
+            }
+
+            @Override
+            public List<String> merge(List<String> left, List<String> right) {
+                left.addAll(right);
+                return left;
+            }
+        };
+    }
+}
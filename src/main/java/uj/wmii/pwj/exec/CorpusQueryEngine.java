@@ -0,0 +1,165 @@
+package uj.wmii.pwj.exec;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates {@link CorpusQuery} aggregates over the {@code data/<dir>/<file>.txt} tree. Files are
+ * streamed line by line, never materialized as a {@code List<String>}. Directories are split
+ * across a fixed set of {@link MyExecService} workers which claim them one at a time, so a slow
+ * directory does not hold up the others.
+ */
+public class CorpusQueryEngine implements Closeable {
+
+    private static final Comparator<Path> BY_NUMBER = Comparator
+        .comparingLong((Path p) -> number(p.getFileName().toString()))
+        .thenComparing(p -> p.getFileName().toString());
+
+    private final Path root;
+    private final MyExecService[] workers;
+
+    public CorpusQueryEngine(Path root, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.root = root;
+        this.workers = new MyExecService[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = MyExecService.newInstance();
+        }
+    }
+
+    public <A> A run(CorpusQuery<A> query) throws IOException, InterruptedException {
+        List<Path> dirs;
+        try (Stream<Path> s = Files.list(root)) {
+            dirs = s.filter(Files::isDirectory).sorted(BY_NUMBER).toList();
+        }
+
+        query.begin();
+        List<A> partials = new ArrayList<>(dirs.size());
+        for (int i = 0; i < dirs.size(); i++) {
+            partials.add(null);
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Future<?>> forks = new ArrayList<>(workers.length);
+        for (MyExecService worker : workers) {
+            forks.add(worker.submit(() -> {
+                int k;
+                while (!stopped.get() && (k = next.getAndIncrement()) < dirs.size()) {
+                    partials.set(k, scan(query, dirs.get(k), stopped));
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> f : forks) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            stopped.set(true);
+            if (e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            stopped.set(true);
+            throw e;
+        }
+
+        A result = query.newPartial();
+        for (A partial : partials) {
+            if (partial != null) result = query.merge(result, partial);
+        }
+        return result;
+    }
+
+    private static <A> A scan(CorpusQuery<A> query, Path dir, AtomicBoolean stopped) {
+        A partial = query.newPartial();
+        String dirName = dir.getFileName().toString();
+        try {
+            List<Path> files;
+            try (Stream<Path> s = Files.list(dir)) {
+                files = s.filter(p -> p.toString().endsWith(".txt") && Files.isRegularFile(p)).sorted(BY_NUMBER).toList();
+            }
+            for (Path file : files) {
+                if (stopped.get()) break;
+                String fileName = file.getFileName().toString();
+                query.startFile(partial, dirName, fileName);
+                try (BufferedReader reader = Files.newBufferedReader(file)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!query.accept(partial, dirName, fileName, line)) {
+                            stopped.set(true);
+                            break;
+                        }
+                        if (stopped.get()) break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return partial;
+    }
+
+    private static long number(String name) {
+        int dot = name.indexOf('.');
+        try {
+            return Long.parseLong(dot < 0 ? name : name.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (MyExecService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Usage: {@code count <regex> | stats | find <regex> <limit>}, optionally followed by
+     * the data directory and parallelism.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Usage: count <regex> | stats | find <regex> <limit> [dataDir] [parallelism]");
+            return;
+        }
+        int rest = switch (args[0]) {
+            case "count" -> 2;
+            case "stats" -> 1;
+            case "find" -> 3;
+            default -> throw new IllegalArgumentException("Unknown query " + args[0]);
+        };
+        Path root = Path.of(args.length > rest ? args[rest] : "data");
+        int parallelism = args.length > rest + 1 ? Integer.parseInt(args[rest + 1])
+            : Runtime.getRuntime().availableProcessors();
+
+        long tt0 = System.currentTimeMillis();
+        try (CorpusQueryEngine engine = new CorpusQueryEngine(root, parallelism)) {
+            switch (args[0]) {
+                case "count" -> System.out.println(engine.run(CorpusQuery.count(Pattern.compile(args[1]))).value());
+                case "stats" -> engine.run(CorpusQuery.dirStats()).forEach((d, s) -> System.out.println(d + ": " + s));
+                case "find" -> engine.run(CorpusQuery.find(Pattern.compile(args[1]), Integer.parseInt(args[2])))
+                    .forEach(System.out::println);
+            }
+        }
+        long tt1 = System.currentTimeMillis();
+        System.out.println("TOTAL: " + (tt1 - tt0) + " ms");
+    }
+}
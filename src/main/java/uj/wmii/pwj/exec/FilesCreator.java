@@ -1,34 +1,126 @@
 package uj.wmii.pwj.exec;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 
 public class FilesCreator {
 
     static final int SIZE = 500;
+    static final String JOURNAL = ".progress";
 
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--packed")) {
+            createPacked(Path.of(args.length > 1 ? args[1] : "data.pack"));
+            return;
+        }
+        create(Path.of("data"), SIZE);
+    }
+
+    /**
+     * Generates {@code root/<dir>/<file>.txt}. Every file is written to a temporary file and
+     * renamed into place, and finished directories are recorded in {@code root/.progress}, so an
+     * interrupted run can be restarted and skips the directories that are already complete.
+     * Once a directory is fully written and renamed, its files and the directory entries are
+     * synced in one pass before it is recorded, so the journal stays trustworthy after a power
+     * loss or OS crash too, not only after the process dies. A journal left by a run with a
+     * different {@code size} is discarded and every directory is generated again.
+     */
+    static void create(Path root, int size) throws IOException {
         long tt0 = System.currentTimeMillis();
-        for (int i = 0; i < SIZE; i++) {
-            long t0 = System.currentTimeMillis();
-            System.out.println("Directory " + i + " of " + SIZE);
-            Path p = Path.of("data/" + i);
-            Files.createDirectories(p);
-            for (int j = 0; j < SIZE; j++) {
-                p = Path.of("data/" + i + "/" + j + ".txt");
-                Files.createFile(p);
-                String s;
-                for (int k = 0; k < SIZE; k++) {
-                    s = i+":"+j+":"+k+":Lorem ipsum dolor sil amet...\n";
-                    Files.write(p, s.getBytes(), StandardOpenOption.APPEND);
+        try (ProgressJournal journal = ProgressJournal.open(root.resolve(JOURNAL), size)) {
+            for (int i = 0; i < size; i++) {
+                if (journal.isComplete(i)) {
+                    System.out.println("Directory " + i + " of " + size + " already complete");
+                    continue;
+                }
+                long t0 = System.currentTimeMillis();
+                System.out.println("Directory " + i + " of " + size);
+                Path dir = root.resolve(String.valueOf(i));
+                Files.createDirectories(dir);
+                for (int j = 0; j < size; j++) {
+                    Path p = dir.resolve(j + ".txt");
+                    Path tmp = dir.resolve(j + ".txt.tmp");
+                    write(tmp, content(i, j, size));
+                    Files.move(tmp, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
                 }
+                for (int j = 0; j < size; j++) {
+                    sync(dir.resolve(j + ".txt"));
+                }
+                syncDirectory(dir);
+                syncDirectory(root);
+                journal.markComplete(i);
+                long t1 = System.currentTimeMillis();
+                System.out.println("completed in " + (t1 - t0) + " ms");
             }
-            long t1 = System.currentTimeMillis();
-            System.out.println("completed in " + (t1 - t0) + " ms");
         }
         long tt1 = System.currentTimeMillis();
         System.out.println("TOTAL: " + (tt1 - tt0) + " ms");
     }
+
+    private static void write(Path p, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static void sync(Path p) throws IOException {
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Makes renames and newly created entries in {@code dir} durable. Some platforms (Windows)
+     * cannot open a directory for syncing; there the rename itself is all we can rely on.
+     */
+    private static void syncDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Emits the same corpus as a single {@link PackedCorpus} file instead of the directory tree.
+     */
+    static void createPacked(Path target) throws IOException {
+        long tt0 = System.currentTimeMillis();
+        try (PackedCorpusWriter writer = new PackedCorpusWriter(target, SIZE, SIZE)) {
+            for (int i = 0; i < SIZE; i++) {
+                System.out.println("Directory " + i + " of " + SIZE);
+                for (int j = 0; j < SIZE; j++) {
+                    writer.add(i, j, content(i, j));
+                }
+            }
+        }
+        long tt1 = System.currentTimeMillis();
+        System.out.println("TOTAL: " + (tt1 - tt0) + " ms");
+    }
+
+    static byte[] content(int i, int j) {
+        return content(i, j, SIZE);
+    }
+
+    static byte[] content(int i, int j, int lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int k = 0; k < lines; k++) {
+            out.writeBytes((i+":"+j+":"+k+":Lorem ipsum dolor sil amet...\n").getBytes());
+        }
+        return out.toByteArray();
+    }
 }
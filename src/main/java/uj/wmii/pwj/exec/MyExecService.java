@@ -9,8 +9,8 @@ public class MyExecService implements ExecutorService {
 
     private BlockingQueue<Runnable> tasksQueue;
     private Thread thread;
-    private boolean shutdown;
-    private boolean terminated;
+    private volatile boolean shutdown;
+    private volatile boolean terminated;
     private Object terminationLock = new Object();
 
     public MyExecService()
@@ -35,7 +35,7 @@ public class MyExecService implements ExecutorService {
                     {
                         break;
                     }
-                    Thread.currentThread().interrupt();
+                    // interrupt left over from cancel(true) of the previous task
                 }
 
                 if (task != null)
@@ -0,0 +1,24 @@
+package uj.wmii.pwj.exec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+record MyRunnable(Path path, int lineIdx, CountDownLatch latch, AsyncLogSink log) implements Runnable {
+
+    @Override
+    public void run() {
+        try {
+            List<String> lines = Files.readAllLines(path);
+            String line = lines.get(lineIdx);
+            if (ThreadLocalRandom.current().nextInt(10000) == 12) log.log(Thread.currentThread().getName() + " " + line);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            latch.countDown();
+        }
+    }
+}
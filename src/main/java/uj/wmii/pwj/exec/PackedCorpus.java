@@ -0,0 +1,199 @@
+package uj.wmii.pwj.exec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read side of the packed corpus: a single file that replaces the {@code data/<dir>/<file>.txt}
+ * tree. Layout (big endian):
+ * <pre>
+ * header      int MAGIC, int VERSION, int dirs, int files, long lineTableBytes
+ * index       dirs * files entries of (long dataOffset, int lineTableIndex, int lineCount)
+ * line table  per file lineCount + 1 ints, offsets of line starts relative to dataOffset
+ * data        file contents, back to back
+ * </pre>
+ * The index and line tables are memory mapped on open, so reading any line costs a single
+ * positioned read. {@link #mapData()} additionally maps the data region, once, after which
+ * {@link #mappedLine} serves lines straight from the mapping.
+ */
+public class PackedCorpus implements Closeable {
+
+    static final int MAGIC = 0x50434F52;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int INDEX_ENTRY_BYTES = 16;
+    /** Largest single mapping; bigger data regions are mapped as several segments. */
+    static final long SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final int dirs;
+    private final int files;
+    private final LongBuffer dataOffsets;
+    private final IntBuffer index;
+    private final IntBuffer lineTable;
+    private final long dataStart;
+    private long segmentBytes;
+    private volatile ByteBuffer[] segments;
+
+    private PackedCorpus(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a packed corpus");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported packed corpus version " + version);
+        }
+        dirs = header.getInt();
+        files = header.getInt();
+        long lineTableBytes = header.getLong();
+        long indexBytes = (long) dirs * files * INDEX_ENTRY_BYTES;
+        if (indexBytes + lineTableBytes > Integer.MAX_VALUE) {
+            throw new IOException("Packed corpus index too large to map");
+        }
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, indexBytes + lineTableBytes);
+        dataOffsets = mapped.slice(0, (int) indexBytes).asLongBuffer();
+        index = mapped.slice(0, (int) indexBytes).asIntBuffer();
+        lineTable = mapped.slice((int) indexBytes, (int) lineTableBytes).asIntBuffer();
+        dataStart = HEADER_BYTES + indexBytes + lineTableBytes;
+    }
+
+    public static PackedCorpus open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PackedCorpus(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int dirs() {
+        return dirs;
+    }
+
+    public int files() {
+        return files;
+    }
+
+    public int lineCount(int dir, int file) {
+        return index.get(entry(dir, file) * 4 + 3);
+    }
+
+    /**
+     * Returns line {@code lineIdx} of {@code data/<dir>/<file>.txt} without the line terminator.
+     */
+    public String line(int dir, int file, int lineIdx) throws IOException {
+        int e = entry(dir, file);
+        int table = lineTableIndex(e, lineIdx);
+        int from = lineTable.get(table);
+        int to = lineTable.get(table + 1);
+        ByteBuffer buffer = ByteBuffer.allocate(to - from);
+        readFully(buffer, dataStart + dataOffsets.get(e * 2) + from);
+        return decodeLine(buffer.array());
+    }
+
+    /**
+     * Maps the whole data region, in segments of at most {@link #SEGMENT_BYTES}. The mapping
+     * lives as long as this corpus, so {@link #mappedLine} never maps anything per request.
+     */
+    public void mapData() throws IOException {
+        mapData(SEGMENT_BYTES);
+    }
+
+    synchronized void mapData(long segmentBytes) throws IOException {
+        if (segments != null) return;
+        long size = channel.size() - dataStart;
+        ByteBuffer[] mapped = new ByteBuffer[(int) ((size + segmentBytes - 1) / segmentBytes)];
+        for (int s = 0; s < mapped.length; s++) {
+            long from = s * segmentBytes;
+            mapped[s] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + from, Math.min(segmentBytes, size - from));
+        }
+        this.segmentBytes = segmentBytes;
+        this.segments = mapped;
+    }
+
+    /**
+     * Same as {@link #line}, but copies the line out of the mapping made by {@link #mapData()}.
+     *
+     * @throws IllegalStateException if the data region has not been mapped
+     */
+    public String mappedLine(int dir, int file, int lineIdx) {
+        ByteBuffer[] mapped = segments;
+        if (mapped == null) {
+            throw new IllegalStateException("Data region is not mapped");
+        }
+        int e = entry(dir, file);
+        int table = lineTableIndex(e, lineIdx);
+        int from = lineTable.get(table);
+        byte[] bytes = new byte[lineTable.get(table + 1) - from];
+        long position = dataOffsets.get(e * 2) + from;
+        for (int copied = 0; copied < bytes.length; ) {
+            ByteBuffer segment = mapped[(int) (position / segmentBytes)];
+            int offset = (int) (position % segmentBytes);
+            int n = Math.min(bytes.length - copied, segment.capacity() - offset);
+            segment.get(offset, bytes, copied, n);
+            copied += n;
+            position += n;
+        }
+        return decodeLine(bytes);
+    }
+
+    /**
+     * Returns the whole content of {@code data/<dir>/<file>.txt}.
+     */
+    public byte[] content(int dir, int file) throws IOException {
+        int e = entry(dir, file);
+        int table = index.get(e * 4 + 2);
+        int size = lineTable.get(table + index.get(e * 4 + 3));
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        readFully(buffer, dataStart + dataOffsets.get(e * 2));
+        return buffer.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int entry(int dir, int file) {
+        if (dir < 0 || dir >= dirs || file < 0 || file >= files) {
+            throw new IndexOutOfBoundsException("No file " + dir + "/" + file + " in packed corpus");
+        }
+        return dir * files + file;
+    }
+
+    private int lineTableIndex(int e, int lineIdx) {
+        int lineCount = index.get(e * 4 + 3);
+        if (lineIdx < 0 || lineIdx >= lineCount) {
+            throw new IndexOutOfBoundsException("Index " + lineIdx + " out of bounds for length " + lineCount);
+        }
+        return index.get(e * 4 + 2) + lineIdx;
+    }
+
+    private static String decodeLine(byte[] bytes) {
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\n') length--;
+        if (length > 0 && bytes[length - 1] == '\r') length--;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of packed corpus");
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package uj.wmii.pwj.exec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts between the {@code data/<dir>/<file>.txt} tree and a {@link PackedCorpus} file.
+ * Usage: {@code export <dataDir> <packFile> [size]} or {@code import <packFile> <dataDir>}.
+ */
+public class PackedCorpusConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.out.println("Usage: export <dataDir> <packFile> [size] | import <packFile> <dataDir>");
+            return;
+        }
+        long tt0 = System.currentTimeMillis();
+        if (args[0].equals("export")) {
+            int size = args.length > 3 ? Integer.parseInt(args[3]) : FilesCreator.SIZE;
+            exportTo(Path.of(args[1]), Path.of(args[2]), size, size);
+        } else {
+            importFrom(Path.of(args[1]), Path.of(args[2]));
+        }
+        long tt1 = System.currentTimeMillis();
+        System.out.println("TOTAL: " + (tt1 - tt0) + " ms");
+    }
+
+    /**
+     * Packs {@code dataDir/<dir>/<file>.txt} for all {@code dir < dirs}, {@code file < files}.
+     */
+    public static void exportTo(Path dataDir, Path packFile, int dirs, int files) throws IOException {
+        try (PackedCorpusWriter writer = new PackedCorpusWriter(packFile, dirs, files)) {
+            for (int i = 0; i < dirs; i++) {
+                for (int j = 0; j < files; j++) {
+                    writer.add(i, j, Files.readAllBytes(dataDir.resolve(i + "/" + j + ".txt")));
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpacks every file of {@code packFile} into {@code dataDir/<dir>/<file>.txt}.
+     */
+    public static void importFrom(Path packFile, Path dataDir) throws IOException {
+        try (PackedCorpus corpus = PackedCorpus.open(packFile)) {
+            for (int i = 0; i < corpus.dirs(); i++) {
+                Path dir = dataDir.resolve(String.valueOf(i));
+                Files.createDirectories(dir);
+                for (int j = 0; j < corpus.files(); j++) {
+                    Files.write(dir.resolve(j + ".txt"), corpus.content(i, j));
+                }
+            }
+        }
+    }
+}
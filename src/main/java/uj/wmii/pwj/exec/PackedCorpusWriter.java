@@ -0,0 +1,124 @@
+package uj.wmii.pwj.exec;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Write side of {@link PackedCorpus}. Files may be added in any order; contents and line
+ * tables are spooled to temporary files next to the target and assembled on {@link #close()}.
+ */
+public class PackedCorpusWriter implements Closeable {
+
+    private final Path target;
+    private final int dirs;
+    private final int files;
+    private final long[] dataOffsets;
+    private final int[] lineTableIndexes;
+    private final int[] lineCounts;
+    private final Path dataSpool;
+    private final Path lineSpool;
+    private final OutputStream data;
+    private final DataOutputStream lines;
+    private long dataBytes;
+    private int lineTableEntries;
+    private boolean closed;
+
+    public PackedCorpusWriter(Path target, int dirs, int files) throws IOException {
+        this.target = target;
+        this.dirs = dirs;
+        this.files = files;
+        this.dataOffsets = new long[dirs * files];
+        this.lineTableIndexes = new int[dirs * files];
+        this.lineCounts = new int[dirs * files];
+        Arrays.fill(lineTableIndexes, -1);
+        this.dataSpool = Path.of(target + ".data.tmp");
+        this.lineSpool = Path.of(target + ".lines.tmp");
+        this.data = new BufferedOutputStream(Files.newOutputStream(dataSpool), 1 << 16);
+        this.lines = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(lineSpool), 1 << 16));
+    }
+
+    /**
+     * Adds the content of {@code data/<dir>/<file>.txt}.
+     */
+    public void add(int dir, int file, byte[] content) throws IOException {
+        if (dir < 0 || dir >= dirs || file < 0 || file >= files) {
+            throw new IndexOutOfBoundsException("No file " + dir + "/" + file + " in packed corpus");
+        }
+        int e = dir * files + file;
+        if (lineTableIndexes[e] >= 0) {
+            throw new IllegalStateException("File " + dir + "/" + file + " already added");
+        }
+        dataOffsets[e] = dataBytes;
+        lineTableIndexes[e] = lineTableEntries;
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                lines.writeInt(start);
+                count++;
+                start = i + 1;
+            }
+        }
+        if (start < content.length) {
+            lines.writeInt(start);
+            count++;
+        }
+        lines.writeInt(content.length);
+        lineCounts[e] = count;
+        lineTableEntries += count + 1;
+        data.write(content);
+        dataBytes += content.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            data.close();
+            lines.close();
+            for (int i = 0; i < lineTableIndexes.length; i++) {
+                if (lineTableIndexes[i] < 0) {
+                    throw new IllegalStateException("File " + i / files + "/" + i % files + " was not added");
+                }
+            }
+            long lineTableBytes = (long) lineTableEntries * 4;
+            ByteBuffer head = ByteBuffer.allocate(PackedCorpus.HEADER_BYTES + dirs * files * PackedCorpus.INDEX_ENTRY_BYTES);
+            head.putInt(PackedCorpus.MAGIC).putInt(PackedCorpus.VERSION).putInt(dirs).putInt(files).putLong(lineTableBytes);
+            for (int i = 0; i < dataOffsets.length; i++) {
+                head.putLong(dataOffsets[i]).putInt(lineTableIndexes[i]).putInt(lineCounts[i]);
+            }
+            head.flip();
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (head.hasRemaining()) {
+                    out.write(head);
+                }
+                append(out, lineSpool);
+                append(out, dataSpool);
+            }
+        } finally {
+            Files.deleteIfExists(dataSpool);
+            Files.deleteIfExists(lineSpool);
+        }
+    }
+
+    private static void append(FileChannel out, Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
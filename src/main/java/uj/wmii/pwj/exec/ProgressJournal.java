@@ -0,0 +1,86 @@
+package uj.wmii.pwj.exec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Append-only record of completed units of work, one 4-byte index per entry after a header of
+ * (int MAGIC, int VERSION, int size). Every entry is forced to disk before
+ * {@link #markComplete(int)} returns; a torn trailing entry left by a crash is ignored and
+ * overwritten on the next open. A journal written for a different {@code size}, or one without a
+ * valid header, is discarded and started over, so its entries never describe a different run.
+ */
+class ProgressJournal implements Closeable {
+
+    static final int MAGIC = 0x504A524E;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+
+    private final FileChannel channel;
+    private final BitSet complete = new BitSet();
+
+    private ProgressJournal(FileChannel channel, int size) throws IOException {
+        this.channel = channel;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) break;
+        }
+        buffer.flip();
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != size) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(size).flip();
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+            channel.position(HEADER_BYTES);
+            return;
+        }
+        while (buffer.remaining() >= 4) {
+            complete.set(buffer.getInt());
+        }
+        long end = buffer.position();
+        channel.truncate(end);
+        channel.position(end);
+    }
+
+    /**
+     * @param size number of units the journalled run consists of
+     */
+    static ProgressJournal open(Path path, int size) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new ProgressJournal(channel, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    boolean isComplete(int index) {
+        return complete.get(index);
+    }
+
+    void markComplete(int index) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(4).putInt(index).flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        channel.force(false);
+        complete.set(index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
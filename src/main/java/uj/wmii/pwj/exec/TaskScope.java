@@ -0,0 +1,276 @@
+package uj.wmii.pwj.exec;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future.State;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scoped group of subtasks running on an {@link ExecutorService} such as {@link MyExecService}.
+ * Subtasks are forked into the scope, the owner joins them, and once the scope shuts down (by
+ * policy, deadline, {@link #shutdown()} or {@link #close()}) every unfinished subtask is
+ * cancelled with an interrupt. {@link #close()} additionally waits until no subtask body is
+ * still running, so no child outlives the scope. The scope only keeps unfinished subtasks.
+ * <pre>
+ * try (TaskScope&lt;String&gt; scope = TaskScope.shutdownOnFailure(executor)) {
+ *     TaskScope.Subtask&lt;String&gt; a = scope.fork(() -&gt; ...);
+ *     TaskScope.Subtask&lt;String&gt; b = scope.fork(() -&gt; ...);
+ *     scope.joinUntil(deadline).throwIfFailed();
+ *     return a.result() + b.result();
+ * }
+ * </pre>
+ *
+ * @param <T> result type of the subtasks
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    public enum Policy {
+        /** Shut down when any subtask fails; {@link #throwIfFailed()} reports the first failure. */
+        SHUTDOWN_ON_FAILURE,
+        /** Shut down when any subtask succeeds; {@link #result()} returns the first result. */
+        SHUTDOWN_ON_SUCCESS
+    }
+
+    /**
+     * Handle to a forked subtask. {@link #state()} is {@code RUNNING} until it completes, and
+     * {@code CANCELLED} if the scope shut down first.
+     */
+    public static final class Subtask<T> extends FutureTask<T> {
+
+        private final TaskScope<? super T> scope;
+        private boolean tracked;
+
+        private Subtask(TaskScope<? super T> scope, Callable<T> task) {
+            super(task);
+            this.scope = scope;
+        }
+
+        /**
+         * @throws IllegalStateException if the subtask has not completed successfully
+         */
+        public T result() {
+            return resultNow();
+        }
+
+        /**
+         * @throws IllegalStateException if the subtask has not failed
+         */
+        public Throwable exception() {
+            return exceptionNow();
+        }
+
+        @Override
+        public void run() {
+            if (!scope.enter(this)) return;
+            try {
+                super.run();
+            } finally {
+                scope.exit();
+            }
+        }
+
+        @Override
+        protected void done() {
+            scope.onDone(this);
+        }
+    }
+
+    private final Policy policy;
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+    private final Set<Subtask<? extends T>> subtasks = new HashSet<>();
+    private int running;
+    private int active;
+    private boolean shutdown;
+    private boolean closed;
+    private Throwable firstException;
+    private T firstResult;
+    private boolean hasResult;
+
+    public TaskScope(Policy policy, ExecutorService executor) {
+        if (policy == null || executor == null) {
+            throw new NullPointerException();
+        }
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    public static <T> TaskScope<T> shutdownOnFailure(ExecutorService executor) {
+        return new TaskScope<>(Policy.SHUTDOWN_ON_FAILURE, executor);
+    }
+
+    public static <T> TaskScope<T> shutdownOnSuccess(ExecutorService executor) {
+        return new TaskScope<>(Policy.SHUTDOWN_ON_SUCCESS, executor);
+    }
+
+    /**
+     * Starts {@code task} on the executor. If the scope is already shut down the returned
+     * subtask is cancelled and never runs.
+     */
+    public <U extends T> Subtask<U> fork(Callable<U> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        Subtask<U> subtask = new Subtask<>(this, task);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Scope is closed");
+            }
+            if (shutdown) {
+                subtask.cancel(false);
+                return subtask;
+            }
+            subtasks.add(subtask);
+            subtask.tracked = true;
+            running++;
+        }
+        try {
+            executor.execute(subtask);
+        } catch (RejectedExecutionException e) {
+            subtask.cancel(false);
+            throw e;
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits until all subtasks have completed or the scope has shut down.
+     */
+    public TaskScope<T> join() throws InterruptedException {
+        synchronized (lock) {
+            while (running > 0 && !shutdown) {
+                lock.wait();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Like {@link #join()}, but shuts the scope down and throws {@link TimeoutException} if
+     * {@code deadline} passes first.
+     */
+    public TaskScope<T> joinUntil(Instant deadline) throws InterruptedException, TimeoutException {
+        synchronized (lock) {
+            while (running > 0 && !shutdown) {
+                long remain = deadline.toEpochMilli() - System.currentTimeMillis();
+                if (remain <= 0) {
+                    shutdown();
+                    throw new TimeoutException();
+                }
+                lock.wait(remain);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stops the scope: no new subtasks are started and unfinished ones are cancelled.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            if (shutdown) return;
+            shutdown = true;
+            for (Subtask<? extends T> subtask : new ArrayList<>(subtasks)) {
+                subtask.cancel(true);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    /**
+     * For {@link Policy#SHUTDOWN_ON_FAILURE}: throws the exception of the first failed subtask.
+     */
+    public void throwIfFailed() throws ExecutionException {
+        synchronized (lock) {
+            if (firstException != null) {
+                throw new ExecutionException(firstException);
+            }
+        }
+    }
+
+    /**
+     * For {@link Policy#SHUTDOWN_ON_SUCCESS}: returns the result of the first successful subtask,
+     * or throws the first failure if none succeeded.
+     */
+    public T result() throws ExecutionException {
+        synchronized (lock) {
+            if (hasResult) {
+                return firstResult;
+            }
+            throw new ExecutionException(firstException != null ? firstException
+                : new IllegalStateException("No subtask completed successfully"));
+        }
+    }
+
+    /**
+     * Shuts the scope down, cancelling every subtask still running, and waits until the bodies
+     * of cancelled subtasks have actually returned. Subtasks that ignore interrupts therefore
+     * delay {@code close()}. Interrupting the owner does not cut the wait short; the interrupt
+     * status is restored afterwards.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        synchronized (lock) {
+            closed = true;
+            while (active > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean enter(Subtask<?> subtask) {
+        synchronized (lock) {
+            if (subtask.isDone()) return false;
+            active++;
+            return true;
+        }
+    }
+
+    private void exit() {
+        synchronized (lock) {
+            active--;
+            lock.notifyAll();
+        }
+    }
+
+    private void onDone(Subtask<? extends T> subtask) {
+        synchronized (lock) {
+            if (!subtask.tracked) return;
+            subtasks.remove(subtask);
+            running--;
+            if (!subtask.isCancelled()) {
+                if (subtask.state() == State.FAILED) {
+                    if (firstException == null) firstException = subtask.exceptionNow();
+                    if (policy == Policy.SHUTDOWN_ON_FAILURE) shutdown();
+                } else if (!hasResult) {
+                    firstResult = subtask.resultNow();
+                    hasResult = true;
+                    if (policy == Policy.SHUTDOWN_ON_SUCCESS) shutdown();
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+}
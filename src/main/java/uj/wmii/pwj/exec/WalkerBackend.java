@@ -0,0 +1,172 @@
+package uj.wmii.pwj.exec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A way of answering a single "line {@code line} of {@code data/<dir>/<file>.txt}" request,
+ * used by {@link WalkerBenchmark}. Implementations must be thread safe.
+ */
+interface WalkerBackend extends AutoCloseable {
+
+    List<String> NAMES = List.of("platform", "myexec", "virtual", "mmap", "cached", "indexed");
+
+    String readLine(int dir, int file, int line) throws Exception;
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * @param threads number of workers of the {@code myexec} backend
+     * @param cacheCapacity number of files kept by the {@code cached} backend
+     */
+    static WalkerBackend create(String name, Path data, Path pack, int threads, int cacheCapacity) throws IOException {
+        return switch (name) {
+            case "platform" -> new Spawning(data, Thread.ofPlatform());
+            case "virtual" -> new Spawning(data, Thread.ofVirtual());
+            case "myexec" -> new Pooled(data, threads);
+            case "mmap" -> new Mapped(pack);
+            case "cached" -> new Cached(data, cacheCapacity);
+            case "indexed" -> new Indexed(PackedCorpus.open(pack));
+            default -> throw new IllegalArgumentException("Unknown backend " + name + ", expected one of " + NAMES);
+        };
+    }
+
+    static Path path(Path data, int dir, int file) {
+        return data.resolve(dir + "/" + file + ".txt");
+    }
+
+    /**
+     * One new thread per request reading the file with {@code Files.readAllLines}, as in
+     * {@link FileThreadWalker}.
+     */
+    record Spawning(Path data, Thread.Builder builder) implements WalkerBackend {
+        @Override
+        public String readLine(int dir, int file, int line) throws Exception {
+            FutureTask<String> task = new FutureTask<>(() -> Files.readAllLines(path(data, dir, file)).get(line));
+            builder.start(task);
+            return task.get();
+        }
+    }
+
+    /**
+     * {@code Files.readAllLines} on a fixed set of {@link MyExecService} workers.
+     */
+    final class Pooled implements WalkerBackend {
+        private final Path data;
+        private final MyExecService[] workers;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Pooled(Path data, int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("threads must be positive");
+            }
+            this.data = data;
+            this.workers = new MyExecService[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = MyExecService.newInstance();
+            }
+        }
+
+        @Override
+        public String readLine(int dir, int file, int line) throws Exception {
+            MyExecService worker = workers[Math.floorMod(next.getAndIncrement(), workers.length)];
+            return worker.submit(() -> Files.readAllLines(path(data, dir, file)).get(line)).get();
+        }
+
+        @Override
+        public void close() {
+            for (MyExecService worker : workers) {
+                worker.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Maps the data region of a {@link PackedCorpus} file once and copies each requested line
+     * out of the mapping on the calling thread. Mapping per request instead would leave the
+     * unmapping to the GC and run into {@code vm.max_map_count} under load.
+     */
+    final class Mapped implements WalkerBackend {
+        private final PackedCorpus corpus;
+
+        Mapped(Path pack) throws IOException {
+            corpus = PackedCorpus.open(pack);
+            try {
+                corpus.mapData();
+            } catch (IOException | RuntimeException e) {
+                corpus.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String readLine(int dir, int file, int line) {
+            return corpus.mappedLine(dir, file, line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            corpus.close();
+        }
+    }
+
+    /**
+     * Keeps the lines of the most recently used files in an LRU cache.
+     */
+    final class Cached implements WalkerBackend {
+        private final Path data;
+        private final Map<Long, List<String>> cache;
+
+        Cached(Path data, int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("cache capacity must be positive");
+            }
+            this.data = data;
+            this.cache = new LinkedHashMap<>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        @Override
+        public String readLine(int dir, int file, int line) throws IOException {
+            Long key = (long) dir << 32 | file;
+            List<String> lines;
+            synchronized (cache) {
+                lines = cache.get(key);
+            }
+            if (lines == null) {
+                lines = Files.readAllLines(path(data, dir, file));
+                synchronized (cache) {
+                    cache.put(key, lines);
+                }
+            }
+            return lines.get(line);
+        }
+    }
+
+    /**
+     * Single positioned read per request from a {@link PackedCorpus} file.
+     */
+    record Indexed(PackedCorpus corpus) implements WalkerBackend {
+        @Override
+        public String readLine(int dir, int file, int line) throws IOException {
+            return corpus.line(dir, file, line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            corpus.close();
+        }
+    }
+}
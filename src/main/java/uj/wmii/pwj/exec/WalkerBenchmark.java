@@ -0,0 +1,167 @@
+package uj.wmii.pwj.exec;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reproducible version of {@link FileThreadWalker}. Replays a seeded request stream against a
+ * {@link WalkerBackend} from a fixed number of closed-loop client threads and reports throughput
+ * and latency percentiles as CSV or JSON.
+ * <p>
+ * Options (all {@code --key=value}): {@code backend} (one of {@link WalkerBackend#NAMES}),
+ * {@code requests}, {@code warmup}, {@code concurrency}, {@code threads} (myexec workers),
+ * {@code cache} (files kept by the cached backend), {@code seed}, {@code format} ({@code csv} or
+ * {@code json}), {@code out} (file to append the report to, stdout if absent), {@code data},
+ * {@code pack}, {@code size}.
+ */
+public class WalkerBenchmark {
+
+    static final String CSV_HEADER = "backend,requests,concurrency,cache,seed,errors,millis,throughput,p50_us,p99_us,p999_us,max_us";
+
+    record Result(String backend, int requests, int concurrency, int cache, long seed, int errors, long millis,
+                  long p50, long p99, long p999, long max) {
+
+        Result withCache(int cache) {
+            return new Result(backend, requests, concurrency, cache, seed, errors, millis, p50, p99, p999, max);
+        }
+
+        long throughput() {
+            return millis == 0 ? requests : requests * 1000L / millis;
+        }
+
+        String csv() {
+            return backend + "," + requests + "," + concurrency + "," + cache + "," + seed + "," + errors + ","
+                + millis + "," + throughput() + "," + p50 / 1000 + "," + p99 / 1000 + "," + p999 / 1000 + "," + max / 1000;
+        }
+
+        String json() {
+            return "{\"backend\":\"" + backend + "\",\"requests\":" + requests + ",\"concurrency\":" + concurrency
+                + ",\"cache\":" + cache + ",\"seed\":" + seed + ",\"errors\":" + errors + ",\"millis\":" + millis
+                + ",\"throughput\":" + throughput() + ",\"p50_us\":" + p50 / 1000 + ",\"p99_us\":" + p99 / 1000
+                + ",\"p999_us\":" + p999 / 1000 + ",\"max_us\":" + max / 1000 + "}";
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String backendName = opts.getOrDefault("backend", "platform");
+        int requests = Integer.parseInt(opts.getOrDefault("requests", "100000"));
+        int warmup = Integer.parseInt(opts.getOrDefault("warmup", "10000"));
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "64"));
+        int threads = Integer.parseInt(opts.getOrDefault("threads", String.valueOf(concurrency)));
+        int cache = Integer.parseInt(opts.getOrDefault("cache", "1000"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        int size = Integer.parseInt(opts.getOrDefault("size", String.valueOf(FileThreadWalker.SIZE)));
+        String format = opts.getOrDefault("format", "csv");
+        Path data = Path.of(opts.getOrDefault("data", "data"));
+        Path pack = Path.of(opts.getOrDefault("pack", "data.pack"));
+
+        checkPositive("requests", requests);
+        checkPositive("concurrency", concurrency);
+        checkPositive("threads", threads);
+        checkPositive("cache", cache);
+        if (warmup < 0) {
+            throw new IllegalArgumentException("warmup must not be negative");
+        }
+
+        Result result;
+        try (WalkerBackend backend = WalkerBackend.create(backendName, data, pack, threads, cache)) {
+            if (warmup > 0) {
+                run(backend, backendName, warmup, concurrency, seed + 1, size);
+            }
+            result = run(backend, backendName, requests, concurrency, seed, size).withCache(cache);
+        }
+
+        String report = switch (format) {
+            case "csv" -> result.csv();
+            case "json" -> result.json();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        String out = opts.get("out");
+        if (out == null) {
+            if (format.equals("csv")) System.out.println(CSV_HEADER);
+            System.out.println(report);
+        } else {
+            Path p = Path.of(out);
+            boolean header = format.equals("csv") && (!Files.exists(p) || Files.size(p) == 0);
+            Files.writeString(p, (header ? CSV_HEADER + "\n" : "") + report + "\n",
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Runs {@code requests} requests generated from {@code seed}. The same seed and size always
+     * produce the same request stream, regardless of concurrency.
+     */
+    static Result run(WalkerBackend backend, String name, int requests, int concurrency, long seed, int size)
+            throws InterruptedException {
+        checkPositive("requests", requests);
+        checkPositive("concurrency", concurrency);
+        SplittableRandom r = new SplittableRandom(seed);
+        int[] dirs = new int[requests];
+        int[] files = new int[requests];
+        int[] lines = new int[requests];
+        for (int i = 0; i < requests; i++) {
+            dirs[i] = r.nextInt(size);
+            files[i] = r.nextInt(size);
+            lines[i] = r.nextInt(size);
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        Runnable client = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < requests) {
+                long t0 = System.nanoTime();
+                try {
+                    backend.readLine(dirs[i], files[i], lines[i]);
+                    latencies[i] = System.nanoTime() - t0;
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    latencies[i] = -1;
+                }
+            }
+        };
+
+        Thread[] clients = new Thread[concurrency];
+        long t0 = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            clients[c] = Thread.ofPlatform().name("C-" + c).start(client);
+        }
+        for (Thread t : clients) {
+            t.join();
+        }
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+
+        long[] ok = Arrays.stream(latencies).filter(l -> l >= 0).sorted().toArray();
+        return new Result(name, requests, concurrency, 0, seed, errors.get(), millis,
+            percentile(ok, 0.50), percentile(ok, 0.99), percentile(ok, 0.999),
+            ok.length == 0 ? 0 : ok[ok.length - 1]);
+    }
+
+    private static void checkPositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
@@ -0,0 +1,59 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncFileWalkerTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testLineAt() {
+        ByteBuffer b = ByteBuffer.wrap("a\r\nbb\n\nlast".getBytes());
+        assertEquals("a", AsyncFileWalker.lineAt(b, 0));
+        assertEquals("bb", AsyncFileWalker.lineAt(b, 1));
+        assertEquals("", AsyncFileWalker.lineAt(b, 2));
+        assertEquals("last", AsyncFileWalker.lineAt(b, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> AsyncFileWalker.lineAt(b, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> AsyncFileWalker.lineAt(ByteBuffer.wrap("x\n".getBytes()), 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> AsyncFileWalker.lineAt(ByteBuffer.allocate(0), 0));
+    }
+
+    @Test
+    void testReadLine() throws Exception {
+        Path p = tmp.resolve("0.txt");
+        Files.write(p, FilesCreator.content(0, 0, 5));
+        try (AsyncFileWalker walker = new AsyncFileWalker(2, 4)) {
+            assertEquals("0:0:3:Lorem ipsum dolor sil amet...", walker.readLine(p, 3).get(1, TimeUnit.SECONDS));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> walker.readLine(p, 5).get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IndexOutOfBoundsException.class, e.getCause());
+            e = assertThrows(ExecutionException.class, () -> walker.readLine(tmp.resolve("missing.txt"), 0).get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testFailedReadReleasesPermit() throws Exception {
+        Path p = tmp.resolve("0.txt");
+        Files.write(p, FilesCreator.content(0, 0, 5));
+        AsyncFileWalker walker = new AsyncFileWalker(1, 1);
+        walker.close();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> f = walker.readLine(p, 0);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+    }
+}
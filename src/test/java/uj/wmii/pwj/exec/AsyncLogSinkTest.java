@@ -0,0 +1,121 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLogSinkTest {
+
+    @Test
+    void testOrderingSingleProducer() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(new PrintStream(bytes), 8192);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(sink.log("m" + i));
+        }
+        sink.close();
+        List<String> lines = bytes.toString().lines().toList();
+        assertEquals(5000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals("m" + i, lines.get(i));
+        }
+        assertEquals(0, sink.dropped());
+    }
+
+    @Test
+    void testDropWhenFull() throws Exception {
+        BlockingStream stream = new BlockingStream();
+        AsyncLogSink sink = new AsyncLogSink(new PrintStream(stream), 4);
+        assertTrue(sink.log("first"));
+        assertTrue(stream.entered.await(1, TimeUnit.SECONDS));
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (sink.log("m" + i)) accepted++;
+        }
+        assertEquals(4, accepted);
+        assertEquals(6, sink.dropped());
+
+        stream.release.countDown();
+        sink.close();
+        assertEquals(List.of("first", "m0", "m1", "m2", "m3"), stream.bytes.toString().lines().toList());
+    }
+
+    @Test
+    void testCapacityRoundedUpToPowerOfTwo() throws Exception {
+        assertEquals(1, acceptedWhileWriterBlocked(1));
+        assertEquals(4, acceptedWhileWriterBlocked(3));
+        assertEquals(8, acceptedWhileWriterBlocked(8));
+    }
+
+    @Test
+    void testCloseFlushesEverythingAccepted() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(new PrintStream(bytes), 64);
+        AtomicInteger accepted = new AtomicInteger();
+        Thread[] producers = new Thread[8];
+        for (int p = 0; p < producers.length; p++) {
+            int id = p;
+            producers[p] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (sink.log(id + ":" + i)) accepted.incrementAndGet();
+                }
+            });
+        }
+        ExecServiceTest.doSleep(5);
+        sink.close();
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertFalse(sink.log("after close"));
+        assertEquals(accepted.get(), bytes.toString().lines().count());
+        assertEquals(8 * 20_000 + 1, accepted.get() + sink.dropped());
+    }
+
+    private static int acceptedWhileWriterBlocked(int capacity) throws InterruptedException {
+        BlockingStream stream = new BlockingStream();
+        AsyncLogSink sink = new AsyncLogSink(new PrintStream(stream), capacity);
+        sink.log("first");
+        assertTrue(stream.entered.await(1, TimeUnit.SECONDS));
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (sink.log("m" + i)) accepted++;
+        }
+        stream.release.countDown();
+        sink.close();
+        return accepted;
+    }
+
+    /**
+     * Blocks the first write until released, so the sink's writer thread is stuck mid-batch.
+     */
+    static class BlockingStream extends OutputStream {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            bytes.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorpusQueryEngineTest {
+
+    static final int SIZE = 4;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testCount() throws Exception {
+        createCorpus();
+        CorpusQuery<CorpusQuery.Counter> q = CorpusQuery.count(Pattern.compile("^\\d+:\\d+:1:"));
+        try (CorpusQueryEngine engine = new CorpusQueryEngine(tmp, 3)) {
+            for (int run = 0; run < 2; run++) {
+                assertEquals(SIZE * SIZE, engine.run(q).value());
+            }
+            assertEquals(0, engine.run(CorpusQuery.count(Pattern.compile("nothing"))).value());
+        }
+    }
+
+    @Test
+    void testDirStats() throws Exception {
+        createCorpus();
+        Files.writeString(tmp.resolve("0/0.txt.tmp"), "not part of the corpus\n");
+        CorpusQuery<Map<String, CorpusQuery.DirStats>> q = CorpusQuery.dirStats();
+        try (CorpusQueryEngine engine = new CorpusQueryEngine(tmp, 3)) {
+            for (int run = 0; run < 2; run++) {
+                Map<String, CorpusQuery.DirStats> stats = engine.run(q);
+                assertEquals(List.of("0", "1", "2", "3"), List.copyOf(stats.keySet()));
+                for (int i = 0; i < SIZE; i++) {
+                    long chars = 0;
+                    for (int j = 0; j < SIZE; j++) {
+                        chars += FilesCreator.content(i, j, SIZE).length - SIZE;
+                    }
+                    CorpusQuery.DirStats s = stats.get(String.valueOf(i));
+                    assertEquals(SIZE, s.files());
+                    assertEquals(SIZE * SIZE, s.lines());
+                    assertEquals(chars, s.chars());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testFindWithLimit() throws Exception {
+        createCorpus();
+        CorpusQuery<List<String>> limited = CorpusQuery.find(Pattern.compile("Lorem"), 3);
+        CorpusQuery<List<String>> all = CorpusQuery.find(Pattern.compile("^2:1:"), 100);
+        try (CorpusQueryEngine engine = new CorpusQueryEngine(tmp, 3)) {
+            for (int run = 0; run < 2; run++) {
+                assertEquals(3, engine.run(limited).size());
+                assertEquals(List.of(
+                    "2/1.txt: 2:1:0:Lorem ipsum dolor sil amet...",
+                    "2/1.txt: 2:1:1:Lorem ipsum dolor sil amet...",
+                    "2/1.txt: 2:1:2:Lorem ipsum dolor sil amet...",
+                    "2/1.txt: 2:1:3:Lorem ipsum dolor sil amet..."), engine.run(all));
+            }
+        }
+    }
+
+    @Test
+    void testLimitStopsEarly() throws Exception {
+        createCorpus();
+        CorpusQuery<CorpusQuery.Counter> firstLine = new CorpusQuery<>() {
+            @Override
+            public CorpusQuery.Counter newPartial() {
+                return new CorpusQuery.Counter();
+            }
+
+            @Override
+            public boolean accept(CorpusQuery.Counter partial, String dir, String file, String line) {
+                partial.value++;
+                return false;
+            }
+
+            @Override
+            public CorpusQuery.Counter merge(CorpusQuery.Counter left, CorpusQuery.Counter right) {
+                left.value += right.value;
+                return left;
+            }
+        };
+        try (CorpusQueryEngine engine = new CorpusQueryEngine(tmp, 2)) {
+            long seen = engine.run(firstLine).value();
+            assertTrue(seen >= 1 && seen <= 2, "seen " + seen);
+        }
+    }
+
+    private void createCorpus() throws IOException {
+        FilesCreator.create(tmp, SIZE);
+    }
+}
@@ -156,6 +156,26 @@ public class ExecServiceTest {
         assertTrue(future.isDone());
     }
 
+    @Test
+    void testWorkerSurvivesCancelledTask() {
+        MyExecService s = MyExecService.newInstance();
+
+        Future<?> busy = s.submit(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+        });
+        doSleep(20);
+        busy.cancel(true);
+
+        TestRunnable r = new TestRunnable();
+        s.execute(r);
+        doSleep(300);
+
+        assertTrue(busy.isCancelled());
+        assertTrue(r.wasRun);
+    }
+
     @Test
     void testInvokeAll() throws InterruptedException, ExecutionException {
         MyExecService s = MyExecService.newInstance();
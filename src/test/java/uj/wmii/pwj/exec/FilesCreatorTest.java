@@ -0,0 +1,94 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilesCreatorTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testCreate() throws IOException {
+        FilesCreator.create(tmp, 3);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertArrayEquals(FilesCreator.content(i, j, 3), Files.readAllBytes(tmp.resolve(i + "/" + j + ".txt")));
+                assertFalse(Files.exists(tmp.resolve(i + "/" + j + ".txt.tmp")));
+            }
+        }
+        assertEquals(ProgressJournal.HEADER_BYTES + 12, Files.size(tmp.resolve(FilesCreator.JOURNAL)));
+    }
+
+    @Test
+    void testSizeChangeStartsOver() throws IOException {
+        FilesCreator.create(tmp, 2);
+        FilesCreator.create(tmp, 4);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertArrayEquals(FilesCreator.content(i, j, 4), Files.readAllBytes(tmp.resolve(i + "/" + j + ".txt")));
+            }
+        }
+        assertEquals(ProgressJournal.HEADER_BYTES + 16, Files.size(tmp.resolve(FilesCreator.JOURNAL)));
+    }
+
+    @Test
+    void testResumeSkipsCompleteDirectories() throws IOException {
+        Path marker = tmp.resolve("0/0.txt");
+        try (ProgressJournal journal = ProgressJournal.open(tmp.resolve(FilesCreator.JOURNAL), 3)) {
+            Files.createDirectories(marker.getParent());
+            Files.writeString(marker, "already there");
+            journal.markComplete(0);
+        }
+        Files.createDirectories(tmp.resolve("1"));
+        Files.writeString(tmp.resolve("1/0.txt"), "1:0:0:Lorem");
+        Files.writeString(tmp.resolve("1/1.txt.tmp"), "half");
+
+        FilesCreator.create(tmp, 3);
+
+        assertEquals("already there", Files.readString(marker));
+        assertFalse(Files.exists(tmp.resolve("0/1.txt")));
+        assertArrayEquals(FilesCreator.content(1, 0, 3), Files.readAllBytes(tmp.resolve("1/0.txt")));
+        assertArrayEquals(FilesCreator.content(1, 1, 3), Files.readAllBytes(tmp.resolve("1/1.txt")));
+        assertFalse(Files.exists(tmp.resolve("1/1.txt.tmp")));
+        assertArrayEquals(FilesCreator.content(2, 2, 3), Files.readAllBytes(tmp.resolve("2/2.txt")));
+    }
+
+    @Test
+    void testTornJournalEntryIgnored() throws IOException {
+        Path journalFile = tmp.resolve(FilesCreator.JOURNAL);
+        Files.write(journalFile, ByteBuffer.allocate(ProgressJournal.HEADER_BYTES + 6).putInt(ProgressJournal.MAGIC)
+            .putInt(ProgressJournal.VERSION).putInt(3).putInt(1).array());
+        try (ProgressJournal journal = ProgressJournal.open(journalFile, 3)) {
+            assertTrue(journal.isComplete(1));
+            assertFalse(journal.isComplete(0));
+            journal.markComplete(2);
+        }
+        assertEquals(ProgressJournal.HEADER_BYTES + 8, Files.size(journalFile));
+        try (ProgressJournal journal = ProgressJournal.open(journalFile, 3)) {
+            assertTrue(journal.isComplete(1));
+            assertTrue(journal.isComplete(2));
+        }
+    }
+
+    @Test
+    void testForeignJournalDiscarded() throws IOException {
+        Path journalFile = tmp.resolve(FilesCreator.JOURNAL);
+        Files.write(journalFile, new byte[] {0, 0, 0, 1, 0, 0, 0, 2});
+        try (ProgressJournal journal = ProgressJournal.open(journalFile, 3)) {
+            assertFalse(journal.isComplete(1));
+            journal.markComplete(0);
+        }
+        try (ProgressJournal journal = ProgressJournal.open(journalFile, 4)) {
+            assertFalse(journal.isComplete(0));
+        }
+        assertEquals(ProgressJournal.HEADER_BYTES, Files.size(journalFile));
+    }
+}
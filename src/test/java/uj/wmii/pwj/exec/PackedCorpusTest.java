@@ -0,0 +1,101 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedCorpusTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testReadLines() throws IOException {
+        Path pack = tmp.resolve("data.pack");
+        try (PackedCorpusWriter w = new PackedCorpusWriter(pack, 2, 2)) {
+            w.add(1, 1, "d\n".getBytes());
+            w.add(0, 0, "a\nbb\nccc\n".getBytes());
+            w.add(0, 1, "no newline".getBytes());
+            w.add(1, 0, new byte[0]);
+        }
+        try (PackedCorpus c = PackedCorpus.open(pack)) {
+            assertEquals(2, c.dirs());
+            assertEquals(2, c.files());
+            assertEquals(3, c.lineCount(0, 0));
+            assertEquals("a", c.line(0, 0, 0));
+            assertEquals("bb", c.line(0, 0, 1));
+            assertEquals("ccc", c.line(0, 0, 2));
+            assertEquals("no newline", c.line(0, 1, 0));
+            assertEquals(0, c.lineCount(1, 0));
+            assertEquals("d", c.line(1, 1, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> c.line(0, 0, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> c.line(2, 0, 0));
+        }
+        assertFalse(Files.exists(Path.of(pack + ".data.tmp")));
+    }
+
+    @Test
+    void testMappedLinesAcrossSegments() throws IOException {
+        Path pack = tmp.resolve("data.pack");
+        try (PackedCorpusWriter w = new PackedCorpusWriter(pack, 2, 2)) {
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < 2; j++) {
+                    w.add(i, j, FilesCreator.content(i, j, 5));
+                }
+            }
+        }
+        try (PackedCorpus c = PackedCorpus.open(pack)) {
+            assertThrows(IllegalStateException.class, () -> c.mappedLine(0, 0, 0));
+            c.mapData(7);
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < 2; j++) {
+                    for (int k = 0; k < 5; k++) {
+                        assertEquals(c.line(i, j, k), c.mappedLine(i, j, k));
+                    }
+                }
+            }
+            assertThrows(IndexOutOfBoundsException.class, () -> c.mappedLine(0, 0, 5));
+        }
+    }
+
+    @Test
+    void testMissingFile() {
+        Path pack = tmp.resolve("data.pack");
+        assertThrows(IllegalStateException.class, () -> {
+            try (PackedCorpusWriter w = new PackedCorpusWriter(pack, 1, 2)) {
+                w.add(0, 0, "a\n".getBytes());
+            }
+        });
+    }
+
+    @Test
+    void testExportImportRoundTrip() throws IOException {
+        Path data = tmp.resolve("data");
+        for (int i = 0; i < 3; i++) {
+            Files.createDirectories(data.resolve(String.valueOf(i)));
+            for (int j = 0; j < 3; j++) {
+                Files.write(data.resolve(i + "/" + j + ".txt"), FilesCreator.content(i, j));
+            }
+        }
+        Path pack = tmp.resolve("data.pack");
+        PackedCorpusConverter.exportTo(data, pack, 3, 3);
+        try (PackedCorpus c = PackedCorpus.open(pack)) {
+            assertEquals("2:1:7:Lorem ipsum dolor sil amet...", c.line(2, 1, 7));
+            assertEquals(FilesCreator.SIZE, c.lineCount(1, 2));
+        }
+
+        Path copy = tmp.resolve("copy");
+        PackedCorpusConverter.importFrom(pack, copy);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertArrayEquals(Files.readAllBytes(data.resolve(i + "/" + j + ".txt")),
+                    Files.readAllBytes(copy.resolve(i + "/" + j + ".txt")));
+            }
+        }
+    }
+}
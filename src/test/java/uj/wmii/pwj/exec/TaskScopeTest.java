@@ -0,0 +1,127 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskScopeTest {
+
+    @Test
+    void testAllSucceed() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        try (TaskScope<String> scope = TaskScope.shutdownOnFailure(s)) {
+            TaskScope.Subtask<String> a = scope.fork(new StringCallable("A", 10));
+            TaskScope.Subtask<String> b = scope.fork(new StringCallable("B", 10));
+            scope.join().throwIfFailed();
+            assertEquals("A", a.result());
+            assertEquals("B", b.result());
+            assertFalse(scope.isShutdown());
+        }
+    }
+
+    @Test
+    void testShutdownOnFailureCancelsSiblings() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        IllegalStateException failure = new IllegalStateException("boom");
+        long t0 = System.currentTimeMillis();
+        try (TaskScope<String> scope = TaskScope.shutdownOnFailure(s)) {
+            TaskScope.Subtask<String> failing = scope.fork(() -> { throw failure; });
+            TaskScope.Subtask<String> slow = scope.fork(new StringCallable("X", 5000));
+            scope.join();
+            ExecutionException e = assertThrows(ExecutionException.class, scope::throwIfFailed);
+            assertSame(failure, e.getCause());
+            assertEquals(Future.State.FAILED, failing.state());
+            assertEquals(Future.State.CANCELLED, slow.state());
+        }
+        assertTrue(System.currentTimeMillis() - t0 < 1000);
+    }
+
+    @Test
+    void testShutdownOnSuccess() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        try (TaskScope<String> scope = TaskScope.shutdownOnSuccess(s)) {
+            scope.fork(() -> { throw new IllegalStateException(); });
+            scope.fork(new StringCallable("A", 10));
+            TaskScope.Subtask<String> slow = scope.fork(new StringCallable("B", 5000));
+            scope.join();
+            assertEquals("A", scope.result());
+            assertTrue(slow.isCancelled());
+        }
+    }
+
+    @Test
+    void testDeadline() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        try (TaskScope<String> scope = TaskScope.shutdownOnFailure(s)) {
+            TaskScope.Subtask<String> slow = scope.fork(new StringCallable("X", 5000));
+            assertThrows(TimeoutException.class, () -> scope.joinUntil(Instant.now().plusMillis(50)));
+            assertTrue(scope.isShutdown());
+            assertTrue(slow.isCancelled());
+        }
+    }
+
+    @Test
+    void testCloseCancelsRunningSubtasks() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        TaskScope.Subtask<String> slow;
+        try (TaskScope<String> scope = TaskScope.shutdownOnFailure(s)) {
+            slow = scope.fork(new StringCallable("X", 5000));
+            ExecServiceTest.doSleep(20);
+        }
+        assertTrue(slow.isCancelled());
+        TestRunnable r = new TestRunnable();
+        s.execute(r);
+        ExecServiceTest.doSleep(50);
+        assertTrue(r.wasRun);
+    }
+
+    @Test
+    void testCloseWaitsForSubtasksIgnoringInterrupts() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        TestRunnable finished = new TestRunnable();
+        try (TaskScope<String> scope = TaskScope.shutdownOnFailure(s)) {
+            scope.fork(() -> {
+                long end = System.currentTimeMillis() + 200;
+                while (System.currentTimeMillis() < end) {
+                    Thread.onSpinWait();
+                }
+                finished.run();
+                return "A";
+            });
+            ExecServiceTest.doSleep(20);
+        }
+        assertTrue(finished.wasRun);
+    }
+
+    @Test
+    void testManySubtasks() throws Exception {
+        MyExecService s = MyExecService.newInstance();
+        try (TaskScope<Integer> scope = TaskScope.shutdownOnFailure(s)) {
+            for (int i = 0; i < 10_000; i++) {
+                int n = i;
+                scope.fork(() -> n);
+            }
+            scope.join().throwIfFailed();
+            assertFalse(scope.isShutdown());
+        }
+    }
+
+    @Test
+    void testForkAfterShutdown() {
+        MyExecService s = MyExecService.newInstance();
+        TaskScope<String> scope = TaskScope.shutdownOnFailure(s);
+        scope.shutdown();
+        TestRunnable r = new TestRunnable();
+        TaskScope.Subtask<String> t = scope.fork(() -> { r.run(); return "A"; });
+        ExecServiceTest.doSleep(20);
+        assertTrue(t.isCancelled());
+        assertFalse(r.wasRun);
+        scope.close();
+        assertThrows(IllegalStateException.class, () -> scope.fork(() -> "A"));
+    }
+}
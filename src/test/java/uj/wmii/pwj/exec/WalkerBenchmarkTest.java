@@ -0,0 +1,84 @@
+package uj.wmii.pwj.exec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WalkerBenchmarkTest {
+
+    @Test
+    void testSameSeedSameStreamForAnyConcurrency() throws Exception {
+        List<Long> sequential = requests(1, 42);
+        assertEquals(2000, sequential.size());
+        assertEquals(sequential, requests(1, 42));
+        assertEquals(sequential, requests(8, 42));
+        assertNotEquals(sequential, requests(1, 43));
+    }
+
+    @Test
+    void testFailuresAreCounted() throws Exception {
+        WalkerBackend failing = (dir, file, line) -> {
+            if (line % 2 == 0) throw new IllegalStateException();
+            return "";
+        };
+        WalkerBenchmark.Result r = WalkerBenchmark.run(failing, "fake", 1000, 4, 7, 10);
+        assertTrue(r.errors() > 0 && r.errors() < 1000);
+        assertEquals(1000, r.requests());
+    }
+
+    @Test
+    void testNonPositiveArgumentsRejected() {
+        WalkerBackend backend = (dir, file, line) -> "";
+        assertThrows(IllegalArgumentException.class, () -> WalkerBenchmark.run(backend, "fake", 0, 4, 7, 10));
+        assertThrows(IllegalArgumentException.class, () -> WalkerBenchmark.run(backend, "fake", 100, 0, 7, 10));
+        assertThrows(IllegalArgumentException.class,
+            () -> WalkerBackend.create("myexec", Path.of("data"), Path.of("data.pack"), 0, 1000));
+        assertThrows(IllegalArgumentException.class,
+            () -> WalkerBackend.create("cached", Path.of("data"), Path.of("data.pack"), 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> WalkerBenchmark.main(new String[] {"--threads=-1"}));
+    }
+
+    @Test
+    void testReportIncludesCacheCapacity() {
+        WalkerBenchmark.Result r = new WalkerBenchmark.Result("cached", 10, 2, 0, 42, 0, 5, 1000, 2000, 3000, 4000)
+            .withCache(250);
+        assertEquals("cached,10,2,250,42,0,5,2000,1,2,3,4", r.csv());
+        assertEquals(WalkerBenchmark.CSV_HEADER.split(",").length, r.csv().split(",").length);
+        assertTrue(r.json().contains("\"cache\":250"));
+    }
+
+    @Test
+    void testPercentile() {
+        long[] sorted = new long[1000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+        assertEquals(500, WalkerBenchmark.percentile(sorted, 0.50));
+        assertEquals(990, WalkerBenchmark.percentile(sorted, 0.99));
+        assertEquals(999, WalkerBenchmark.percentile(sorted, 0.999));
+        assertEquals(1000, WalkerBenchmark.percentile(sorted, 1.0));
+        assertEquals(1, WalkerBenchmark.percentile(sorted, 0.0));
+        assertEquals(7, WalkerBenchmark.percentile(new long[] {7}, 0.999));
+        assertEquals(0, WalkerBenchmark.percentile(new long[0], 0.5));
+    }
+
+    /**
+     * Requests issued for {@code seed}, encoded and sorted, since clients interleave them.
+     */
+    private static List<Long> requests(int concurrency, long seed) throws Exception {
+        List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+        WalkerBackend recording = (dir, file, line) -> {
+            seen.add((long) dir << 40 | (long) file << 20 | line);
+            return "";
+        };
+        WalkerBenchmark.run(recording, "fake", 2000, concurrency, seed, 500);
+        List<Long> sorted = new ArrayList<>(seen);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}